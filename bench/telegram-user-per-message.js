@@ -0,0 +1,99 @@
+// Per-message cost of the telegram_user operations, before and after projected reads and $set updates.
+//
+//   mongosh "mongodb://localhost:27019/telegram-bot-bench" bench/telegram-user-per-message.js
+//
+// Uses its own database, never the service one, and drops it at the end.
+// Each variant is timed with the profiler off; operation stats come from a separate, shorter profiled pass.
+const USERS = 10000;
+const MESSAGES = 20000;
+const PROFILED_MESSAGES = 2000;
+const COMMANDS = ["START", "ADD_WORD", "FIND_TRANSLATION", "START_TRAINING", "ANSWER", "STOP_TRAINING"];
+
+const bench = db.getSiblingDB("telegram-bot-bench");
+const users = bench.getCollection("telegram_user");
+
+function seed(withIndex) {
+    users.drop();
+    if (withIndex) {
+        users.createIndex({ telegramUserName: 1 }, { unique: true });
+    }
+    const batch = [];
+    for (let i = 0; i < USERS; i++) {
+        batch.push({
+            telegramUserName: "user" + i,
+            password: "UGFzc3dvcmQ=",
+            generatedEmail: "user" + i + "@kbot.com",
+            previousCommand: "START",
+            _class: "org.greek.telegram.model.TelegramUser"
+        });
+    }
+    users.insertMany(batch);
+}
+
+// baseline: findCommand and the previousCommand save each loaded the whole document, then save() replaced it
+function before(userName, command) {
+    users.findOne({ telegramUserName: userName });
+    const user = users.findOne({ telegramUserName: userName });
+    user.previousCommand = command;
+    users.replaceOne({ _id: user._id }, user);
+}
+
+// now: a projected read of previousCommand and a single $set
+function after(userName, command) {
+    users.findOne({ telegramUserName: userName }, { previousCommand: 1, _id: 0 });
+    users.updateOne({ telegramUserName: userName }, { $set: { previousCommand: command } });
+}
+
+function messages(count, perMessage) {
+    for (let i = 0; i < count; i++) {
+        perMessage("user" + (i * 7919 % USERS), COMMANDS[i % COMMANDS.length]);
+    }
+}
+
+function timed(perMessage) {
+    bench.setProfilingLevel(0);
+    messages(Math.min(1000, MESSAGES), perMessage);
+    const start = Date.now();
+    messages(MESSAGES, perMessage);
+    return (Date.now() - start) * 1000 / MESSAGES;
+}
+
+function profiled(perMessage) {
+    bench.setProfilingLevel(0);
+    bench.system.profile.drop();
+    bench.setProfilingLevel(2);
+    messages(PROFILED_MESSAGES, perMessage);
+    bench.setProfilingLevel(0);
+    return bench.system.profile.aggregate([
+        { $match: { ns: users.getFullName() } },
+        { $group: {
+            _id: null,
+            ops: { $sum: 1 },
+            millis: { $sum: "$millis" },
+            docsExamined: { $sum: "$docsExamined" },
+            responseBytes: { $sum: "$responseLength" }
+        } }
+    ]).toArray()[0];
+}
+
+const variants = [
+    { name: "before, no index (baseline collection)", withIndex: false, perMessage: before },
+    { name: "before, unique index", withIndex: true, perMessage: before },
+    { name: "after, unique index", withIndex: true, perMessage: after }
+];
+
+print("| variant | us per message | ops per message | server ms per message | docs examined per message | response bytes per message |");
+print("|---|---|---|---|---|---|");
+variants.forEach(variant => {
+    seed(variant.withIndex);
+    const micros = timed(variant.perMessage);
+    const stats = profiled(variant.perMessage);
+    print("| " + variant.name
+        + " | " + micros.toFixed(1)
+        + " | " + (stats.ops / PROFILED_MESSAGES).toFixed(2)
+        + " | " + (stats.millis / PROFILED_MESSAGES).toFixed(3)
+        + " | " + (stats.docsExamined / PROFILED_MESSAGES).toFixed(1)
+        + " | " + (stats.responseBytes / PROFILED_MESSAGES).toFixed(0) + " |");
+});
+
+bench.dropDatabase();
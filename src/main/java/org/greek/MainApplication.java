@@ -1,11 +1,18 @@
 package org.greek;
 
 import org.springframework.boot.SpringApplication;
+import org.greek.config.BotProperties;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(BotProperties.class)
 public class MainApplication {
     public static void main(String[] args) {
-        SpringApplication.run(MainApplication.class);
+        var context = SpringApplication.run(MainApplication.class);
+        // training run for the class data sharing archive, see Dockerfile
+        if (context.getEnvironment().getProperty("telegram.startup.exit-after-warm-up", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package org.greek.config;
+
+import lombok.Data;
+import org.greek.telegram.model.TelegramUser;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bot registrations hosted by this process.
+ * <p>
+ * The legacy single-bot keys ({@code telegram.bot.*} and {@code telegram.server-url}) are still honoured
+ * when no {@code telegram.bots} list is configured.
+ */
+@Data
+@ConfigurationProperties(prefix = "telegram")
+public class BotProperties {
+    private Bot bot = new Bot();
+    private String serverUrl;
+    private int maxConnections = 100;
+    private List<Bot> bots = new ArrayList<>();
+
+    public List<Bot> resolveBots() {
+        List<Bot> resolved = new ArrayList<>();
+        if (bots.isEmpty()) {
+            var single = copy(bot);
+            if (single.getCollection() == null) {
+                single.setCollection(TelegramUser.DEFAULT_COLLECTION);
+            }
+            resolved.add(single);
+        } else {
+            for (Bot registration : bots) {
+                var copy = copy(registration);
+                if (copy.getCollection() == null && copy.getName() != null) {
+                    copy.setCollection(TelegramUser.DEFAULT_COLLECTION + "_" + copy.getName());
+                }
+                resolved.add(copy);
+            }
+        }
+
+        Set<String> names = new HashSet<>();
+        Set<String> collections = new HashSet<>();
+        for (Bot registration : resolved) {
+            if (registration.getUsername() == null || registration.getToken() == null) {
+                throw new IllegalStateException("Bot registration " + registration.getName() + " must have username and token");
+            }
+            if (registration.getServerUrl() == null) {
+                throw new IllegalStateException("Bot registration " + registration.getName() + " has no server-url");
+            }
+            if (registration.getMaxConcurrentRequests() < 1) {
+                throw new IllegalStateException("Bot registration " + registration.getName() + " must allow at least one concurrent request");
+            }
+            if (!names.add(registration.getName())) {
+                throw new IllegalStateException("Duplicate bot registration name " + registration.getName());
+            }
+            if (!collections.add(registration.getCollection())) {
+                throw new IllegalStateException("Bot registrations share collection " + registration.getCollection());
+            }
+        }
+        return resolved;
+    }
+
+    private Bot copy(Bot source) {
+        var copy = new Bot();
+        copy.setName(source.getName() != null ? source.getName() : source.getUsername());
+        copy.setUsername(source.getUsername());
+        copy.setToken(source.getToken());
+        copy.setServerUrl(source.getServerUrl() != null ? source.getServerUrl() : serverUrl);
+        copy.setCollection(source.getCollection());
+        copy.setMaxConcurrentRequests(source.getMaxConcurrentRequests());
+        copy.setQuotaTimeout(source.getQuotaTimeout());
+        copy.setTokenCacheEntries(source.getTokenCacheEntries());
+        copy.setAsyncTrainingAnswers(source.isAsyncTrainingAnswers());
+        return copy;
+    }
+
+    @Data
+    public static class Bot {
+        private String name;
+        private String username;
+        private String token;
+        private String serverUrl;
+        private String collection;
+        private int maxConcurrentRequests = 10;
+        private Duration quotaTimeout = Duration.ofSeconds(10);
+        private long tokenCacheEntries = 500;
+        private boolean asyncTrainingAnswers;
+    }
+}
@@ -1,11 +1,16 @@
 package org.greek.config;
 
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.xml.XmlConfiguration;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.cache.jcache.config.JCacheConfigurerSupport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
 import javax.cache.Caching;
 import javax.cache.spi.CachingProvider;
 import java.net.URI;
@@ -13,6 +18,7 @@ import java.net.URI;
 @Configuration
 @EnableCaching
 public class CacheConfig extends JCacheConfigurerSupport {
+    private static final String USERS_TOKEN_TEMPLATE = "usersToken";
 
     @Bean
     public JCacheCacheManager cacheManager() {
@@ -25,5 +31,24 @@ public class CacheConfig extends JCacheConfigurerSupport {
             throw new RuntimeException("Failed to configure cache manager", e);
         }
     }
+
+    /**
+     * Returns the token cache of one bot, created from the {@code usersToken} template with its own entry limit.
+     */
+    public static Cache<String, String> usersTokenCache(CacheManager cacheManager, String botName, long entries) {
+        var cacheName = USERS_TOKEN_TEMPLATE + "-" + botName;
+        var existing = cacheManager.getCache(cacheName, String.class, String.class);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            var xmlConfiguration = new XmlConfiguration(CacheConfig.class.getResource("/ehcache.xml"));
+            var configuration = xmlConfiguration.newCacheConfigurationBuilderFromTemplate(USERS_TOKEN_TEMPLATE,
+                    String.class, String.class, ResourcePoolsBuilder.heap(entries));
+            return cacheManager.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(configuration));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to configure token cache for bot " + botName, e);
+        }
+    }
 }
 
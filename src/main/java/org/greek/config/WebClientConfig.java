@@ -0,0 +1,33 @@
+package org.greek.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * One connection pool and event loop group for calls to every bot backend.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider graphQlConnectionProvider(BotProperties botProperties) {
+        return ConnectionProvider.builder("kalimeros-graphql")
+                .maxConnections(botProperties.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofSeconds(30))
+                .maxIdleTime(Duration.ofSeconds(60))
+                .build();
+    }
+
+    @Bean
+    public WebClient graphQlWebClient(WebClient.Builder builder, ConnectionProvider graphQlConnectionProvider) {
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(graphQlConnectionProvider)))
+                .build();
+    }
+}
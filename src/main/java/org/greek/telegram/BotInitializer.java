@@ -1,23 +1,103 @@
 package org.greek.telegram;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.greek.config.BotProperties;
+import org.greek.telegram.repository.TelegramUserRepository;
+import org.greek.telegram.service.TelegramUserService;
+import org.greek.telegram.tenant.BotTenant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
 @Component
+@Lazy(false)
 public class BotInitializer {
-    private final TelegramService telegramService;
+    private static final int ROUTING_WARM_UP_ITERATIONS = 2_000;
+
+    private final BotProperties botProperties;
+    private final WebClient graphQlWebClient;
+    private final JCacheCacheManager cacheManager;
+    private final TelegramUserService userService;
+    private final TelegramUserRepository telegramUserRepository;
+    private final MeterRegistry meterRegistry;
+    @Value("${telegram.startup.warm-up:false}")
+    private boolean warmUp;
+    @Value("${telegram.startup.warm-up-timeout:5s}")
+    private Duration warmUpTimeout;
+    @Value("${telegram.startup.exit-after-warm-up:false}")
+    private boolean exitAfterWarmUp;
 
-    public BotInitializer(TelegramService telegramService) {
-        this.telegramService = telegramService;
+    public BotInitializer(BotProperties botProperties, WebClient graphQlWebClient, JCacheCacheManager cacheManager,
+                          TelegramUserService userService, TelegramUserRepository telegramUserRepository,
+                          MeterRegistry meterRegistry) {
+        this.botProperties = botProperties;
+        this.graphQlWebClient = graphQlWebClient;
+        this.cacheManager = cacheManager;
+        this.userService = userService;
+        this.telegramUserRepository = telegramUserRepository;
+        this.meterRegistry = meterRegistry;
     }
 
     @EventListener({ContextRefreshedEvent.class})
     public void init() throws TelegramApiException {
+        List<BotTenant> tenants = new ArrayList<>();
+        List<GraphQLClient> graphQLClients = new ArrayList<>();
+        List<TelegramService> telegramServices = new ArrayList<>();
+        for (BotProperties.Bot registration : botProperties.resolveBots()) {
+            var tenant = new BotTenant(registration, meterRegistry);
+            tenants.add(tenant);
+            var graphQLClient = new GraphQLClient(tenant, graphQlWebClient, cacheManager, userService);
+            var trainingAnswerQueue = tenant.isAsyncTrainingAnswers() ? new TrainingAnswerQueue(tenant, graphQLClient) : null;
+            graphQLClients.add(graphQLClient);
+            telegramServices.add(new TelegramService(tenant, graphQLClient, telegramUserRepository, trainingAnswerQueue));
+            log.info("Configured bot {} (collection {}, backend {})", tenant.getName(), tenant.getCollection(), tenant.getServerUrl());
+        }
+
+        if (!exitAfterWarmUp) {
+            // in the background, an unreachable mongo must not hold back polling
+            Flux.fromIterable(tenants)
+                    .flatMap(tenant -> Mono.fromRunnable(() -> telegramUserRepository.ensureIndexes(tenant.getCollection()))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .subscribe();
+        }
+
+        if (warmUp || exitAfterWarmUp) {
+            // backends and mongo are warmed up in parallel, so an unreachable one costs at most one warm-up timeout in total
+            long start = System.nanoTime();
+            Flux.merge(
+                            Flux.fromIterable(graphQLClients).flatMap(graphQLClient -> graphQLClient.warmUp(warmUpTimeout)),
+                            Flux.fromIterable(telegramServices).flatMap(telegramService -> telegramService.warmUpStorage(warmUpTimeout)))
+                    .then()
+                    .block();
+            telegramServices.forEach(telegramService -> telegramService.warmUp(ROUTING_WARM_UP_ITERATIONS));
+            log.info("Warmed up {} bots in {} ms", telegramServices.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        if (exitAfterWarmUp) {
+            return;
+        }
+
         TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
-        telegramBotsApi.registerBot(telegramService);
+        for (TelegramService telegramService : telegramServices) {
+            telegramBotsApi.registerBot(telegramService);
+            log.info("Registered bot {}", telegramService.getBotUsername());
+        }
+        log.info("Bots ready {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
     }
 }
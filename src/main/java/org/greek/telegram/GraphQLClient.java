@@ -2,49 +2,59 @@ package org.greek.telegram;
 import org.greek.kalimeros.api.types.SubmitAnswerResult;
 import org.greek.kalimeros.api.types.TrainingSession;
 import org.greek.telegram.service.TelegramUserService;
+import org.greek.config.CacheConfig;
+import org.greek.telegram.tenant.BotTenant;
+import org.greek.telegram.tenant.QuotaExceededException;
 import org.springframework.cache.jcache.JCacheCacheManager;
 import org.greek.models.DictionaryInput;
 import org.greek.models.LoginInput;
 import org.greek.models.LoginResult;
 import org.greek.models.SuccessResponse;
-import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.graphql.client.HttpGraphQlClient;
-import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import javax.cache.Cache;
-import javax.cache.CacheManager;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
-@Service
 @Slf4j
 public class GraphQLClient {
-    private final String serverURL;
+    private final BotTenant tenant;
+    private final HttpGraphQlClient graphQlClient;
     private final Cache<String, String> cacheUserToken;
     private final TelegramUserService userService;
 
 
-    public GraphQLClient(JCacheCacheManager cacheManager, TelegramUserService userService,  @Value("${telegram.server-url}") String serverUrl) {
-        this.serverURL = serverUrl;
+    public GraphQLClient(BotTenant tenant, WebClient webClient, JCacheCacheManager cacheManager, TelegramUserService userService) {
+        this.tenant = tenant;
+        this.graphQlClient = HttpGraphQlClient.builder(webClient.mutate().baseUrl(tenant.getServerUrl()).build()).build();
         this.userService = userService;
-        CacheManager manager = cacheManager.getCacheManager();
-        this.cacheUserToken = manager.getCache("usersToken", String.class, String.class);
+        this.cacheUserToken = CacheConfig.usersTokenCache(cacheManager.getCacheManager(), tenant.getName(), tenant.getTokenCacheEntries());
     }
 
 
-    private void hello(String userName) throws IOException {
+    /**
+     * Opens a pooled connection to the backend and runs the request and response codecs once
+     * with the {@code hello} query. The unauthenticated query may be rejected, only the round trip matters here.
+     */
+    public Mono<Void> warmUp(Duration timeout) {
         //language=GraphQL
         String document = """
-            query { 
-                hello 
+            query {
+                hello
             }
             """;
-        var client = createWebClient(userName, true);
-        String response = client.document(document)
-                .retrieve("hello")
-                .toString();
+        return graphQlClient.document(document)
+                .execute()
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.warn("Warm-up request to {} failed: {}", tenant.getServerUrl(), e.toString());
+                    return Mono.empty();
+                })
+                .then();
     }
 
     public Mono<SuccessResponse> addWord(DictionaryInput newWord, String userName) throws IOException {
@@ -62,11 +72,11 @@ public class GraphQLClient {
         }
         """;
         var client = createWebClient(userName, true);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .variable("newWord", newWord)
                 .retrieve("addWord")
                 .toEntity(SuccessResponse.class)
-                .doOnError(e -> log.error("Error while adding word", e));
+                .doOnError(e -> log.error("Error while adding word", e)));
     }
 
     private Mono<LoginResult> signUp(LoginInput credentials) throws IOException {
@@ -86,11 +96,11 @@ public class GraphQLClient {
         }
         """;
         var client = createWebClient("", false);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .variable("credentials", credentials)
                 .retrieve("signUp")
                 .toEntity(LoginResult.class)
-                .doOnError(e -> log.error("Error during sign up", e));
+                .doOnError(e -> log.error("Error during sign up", e)));
     }
 
     private Mono<LoginResult> signIn(LoginInput credentials) throws IOException {
@@ -110,11 +120,11 @@ public class GraphQLClient {
         }
         """;
         var client = createWebClient("", false);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .variable("credentials", credentials)
                 .retrieve("signIn")
                 .toEntity(LoginResult.class)
-                .doOnError(e -> log.error("Error during sign in", e));
+                .doOnError(e -> log.error("Error during sign in", e)));
     }
 
     public Mono<TrainingSession> startTraining(String userName) throws IOException {
@@ -137,10 +147,10 @@ public class GraphQLClient {
     }
     """;
         var client = createWebClient(userName, true);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .retrieve("startTraining")
                 .toEntity(TrainingSession.class)
-                .doOnError(e -> log.error("Error during start training", e));
+                .doOnError(e -> log.error("Error during start training", e)));
     }
 
     public Mono<SubmitAnswerResult> submitAnswer(String answer, String userName) throws IOException {
@@ -163,11 +173,11 @@ public class GraphQLClient {
     }
     """;
         var client = createWebClient(userName, true);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .variable("answer", answer)
                 .retrieve("submitAnswer")
                 .toEntity(SubmitAnswerResult.class)
-                .doOnError(e -> log.error("Error during submit answer", e));
+                .doOnError(e -> log.error("Error during submit answer", e)));
     }
     public Mono<SuccessResponse> stopTraining(String userName) throws IOException {
         //language=GraphQL
@@ -184,10 +194,10 @@ public class GraphQLClient {
     }
     """;
         var client = createWebClient(userName, true);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .retrieve("stopTraining")
                 .toEntity(SuccessResponse.class)
-                .doOnError(e -> log.error("Error during stop training", e));
+                .doOnError(e -> log.error("Error during stop training", e)));
     }
 
 
@@ -206,11 +216,11 @@ public class GraphQLClient {
     }
     """;
         var client = createWebClient(userName, true);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .variable("word", word)
                 .retrieve("getTranslation")
                 .toEntity(SuccessResponse.class)
-                .doOnError(e -> log.error("Error during get translation", e));
+                .doOnError(e -> log.error("Error during get translation", e)));
     }
 
     public Mono<String> getRandomTranslation(String userName) throws IOException {
@@ -221,10 +231,10 @@ public class GraphQLClient {
     }
     """;
         var client = createWebClient(userName, true);
-        return client.document(document)
+        return withQuota(client.document(document)
                 .retrieve("getRandomTranslation")
                 .toEntity(String.class)
-                .doOnError(e -> log.error("Error during get random translation", e));
+                .doOnError(e -> log.error("Error during get random translation", e)));
     }
 
 
@@ -232,19 +242,32 @@ public class GraphQLClient {
     private HttpGraphQlClient createWebClient(String userName, boolean isNeedToken) throws IOException {
         if (isNeedToken) {
             var token = getTokenForUser(userName);
-            WebClient webClient = WebClient.builder()
-                    .baseUrl(serverURL)
-                    .defaultHeader("Authorization", "Bearer " + token)
+            return graphQlClient.mutate()
+                    .header("Authorization", "Bearer " + token)
                     .build();
-            return HttpGraphQlClient.builder(webClient).build();
         } else {
-            WebClient webClient = WebClient.builder()
-                    .baseUrl(serverURL)
-                    .build();
-            return HttpGraphQlClient.builder(webClient).build();
+            return graphQlClient;
         }
     }
 
+    /**
+     * Waits up to the bot's quota timeout for a free backend slot; callers subscribe on a thread that may block.
+     */
+    private <T> Mono<T> withQuota(Mono<T> request) {
+        return Mono.defer(() -> {
+            try {
+                if (!tenant.getQuota().tryAcquire(tenant.getQuotaTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                    tenant.getRejectedRequests().increment();
+                    return Mono.error(new QuotaExceededException(tenant.getName()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Mono.error(new IOException("Interrupted while waiting for backend quota of bot " + tenant.getName(), e));
+            }
+            return request.doFinally(signal -> tenant.getQuota().release());
+        });
+    }
+
     private String getTokenForUser(String userName) throws IOException {
         var token = cacheUserToken.get(userName);
         if  (token != null) {
@@ -4,46 +4,55 @@ import lombok.extern.slf4j.Slf4j;
 import org.greek.models.DictionaryInput;
 import org.greek.telegram.model.TelegramCommand;
 import org.greek.telegram.repository.TelegramUserRepository;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
+import org.greek.telegram.tenant.BotTenant;
+import org.greek.telegram.tenant.TenantContext;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.greek.telegram.model.TelegramCommand.*;
 
 @Slf4j
-@Service
 public class TelegramService extends TelegramLongPollingBot {
 
-    @Value("${telegram.bot.username}")
-    private String botUsername;
-    @Value("${telegram.bot.token}")
-    private String botToken;
+    private final BotTenant tenant;
     private final GraphQLClient graphQLClient;
     private final TelegramUserRepository telegramUserRepository;
+    private final TrainingAnswerQueue trainingAnswerQueue;
+    private final AtomicBoolean firstUpdate = new AtomicBoolean(true);
 
-    public TelegramService(GraphQLClient graphQLClient, TelegramUserRepository telegramUserRepository) {
+    /**
+     * @param trainingAnswerQueue queue for submitting training answers asynchronously, or {@code null} to submit them inline
+     */
+    public TelegramService(BotTenant tenant, GraphQLClient graphQLClient, TelegramUserRepository telegramUserRepository,
+                           TrainingAnswerQueue trainingAnswerQueue) {
+        this.tenant = tenant;
         this.graphQLClient = graphQLClient;
         this.telegramUserRepository = telegramUserRepository;
+        this.trainingAnswerQueue = trainingAnswerQueue;
     }
 
 
     @Override
     public String getBotUsername() {
         // Return the username of your bot
-        return botUsername;
+        return tenant.getUsername();
     }
 
     @Override
     public String getBotToken() {
         // Return the token of your bot
-        return botToken;
+        return tenant.getToken();
     }
 
     @Override
@@ -54,7 +63,54 @@ public class TelegramService extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
+        TenantContext.set(tenant);
+        tenant.getUpdates().increment();
+        long start = System.nanoTime();
+        try {
+            tenant.getUpdateTimer().record(() -> handleUpdate(update));
+        } finally {
+            TenantContext.clear();
+            if (firstUpdate.compareAndSet(true, false)) {
+                log.info("Bot {} handled its first update in {} ms, {} ms after JVM start", tenant.getName(),
+                        (System.nanoTime() - start) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime());
+            }
+        }
+    }
+
+    /**
+     * Opens a pooled mongo connection with the same projected read as {@code findCommand},
+     * so the first update does not pay for it.
+     */
+    public Mono<Void> warmUpStorage(Duration timeout) {
+        return Mono.fromRunnable(() -> {
+                    TenantContext.set(tenant);
+                    try {
+                        telegramUserRepository.findPreviousCommand("warmup");
+                    } finally {
+                        TenantContext.clear();
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.warn("Warm-up read of collection {} failed: {}", tenant.getCollection(), e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Runs command routing for every command so it is compiled before the first real update arrives.
+     */
+    public void warmUp(int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            for (TelegramCommand command : TelegramCommand.values()) {
+                routeCommand(command.getCommand() + " warmup", i % 2 == 0 ? START : START_TRAINING);
+            }
+        }
+    }
 
+    private void handleUpdate(Update update) {
         // Check if the message contains text
         if (update.hasMessage()) {
             try {
@@ -78,10 +134,10 @@ public class TelegramService extends TelegramLongPollingBot {
                                     response = findTranslation(userName, text);
                                     break;
                                 case START_TRAINING:
-                                    response = startTraining(userName);
+                                    response = startTraining(userName, chatId);
                                     break;
                                 case ANSWER:
-                                    response = submitAnswer(userName, text);
+                                    response = submitAnswer(userName, text, chatId);
                                     break;
                                 case STOP_TRAINING:
                                     response = stopTraining(userName);
@@ -102,13 +158,10 @@ public class TelegramService extends TelegramLongPollingBot {
                                     response = "Unknown or not implemented command";
                                     break;
                             }
-                            var user = telegramUserRepository.findByTelegramUserName(userName);
-                            if (user.isPresent()) {
-                                var savedUser = user.get();
-                                savedUser.setPreviousCommand(command);
-                                telegramUserRepository.save(savedUser);
+                            telegramUserRepository.updatePreviousCommand(userName, command);
+                            if (response != null) {
+                                sendBotAnswer(response, chatId);
                             }
-                            sendBotAnswer(response, chatId);
                         } catch (Exception e) {
                             sendBotAnswer("Error during processing message: "+ e.getMessage() +". Please try again later", chatId);
                             e.printStackTrace();
@@ -127,6 +180,14 @@ public class TelegramService extends TelegramLongPollingBot {
     private void sendBotAnswer(String answer, Long chatId) {
         SendMessage sendMessage = new SendMessage(String.valueOf(chatId), answer);
         sendMessage.setParseMode("MarkdownV2");
+        send(sendMessage, chatId);
+    }
+
+    private void sendPlainAnswer(String answer, Long chatId) {
+        send(new SendMessage(String.valueOf(chatId), answer), chatId);
+    }
+
+    private void send(SendMessage sendMessage, Long chatId) {
         try {
             execute(sendMessage);
         } catch (TelegramApiException e) {
@@ -159,22 +220,31 @@ public class TelegramService extends TelegramLongPollingBot {
         }
     }
 
-    private String startTraining(String userName) throws IOException {
+    private String startTraining(String userName, Long chatId) throws IOException {
         var response = graphQLClient.startTraining(userName).block();
+        if (response != null && trainingAnswerQueue != null) {
+            trainingAnswerQueue.open(userName, answer -> sendPlainAnswer(answer, chatId));
+        }
         return  (response != null ? "Please, write translation of this word "+ response.getWord() + "in replies \n" +
                 "Current amount of right answers " + response.getTotal() :
                 "No answer");
     }
 
     private String stopTraining(String userName) throws IOException {
+        if (trainingAnswerQueue != null) {
+            trainingAnswerQueue.close(userName);
+        }
         var response = graphQLClient.stopTraining(userName).block();
         return  (response != null ? "Training stopped" : "No answer");
     }
 
 
-    private String submitAnswer(String userName, String text) throws IOException {
+    private String submitAnswer(String userName, String text, Long chatId) throws IOException {
         if (text.trim().isEmpty()) {
             return "Please provide word for translation";
+        } else if (trainingAnswerQueue != null && trainingAnswerQueue.submit(userName, text)) {
+            // the result is sent to the chat once the backend has checked the answer
+            return null;
         } else {
             var response = graphQLClient.submitAnswer(text, userName).block();
             return (response != null ? response.toString() : "No answer");
@@ -190,11 +260,11 @@ public class TelegramService extends TelegramLongPollingBot {
 
 
     private TelegramCommand findCommand(String messageText, String userName) {
-        var user = telegramUserRepository.findByTelegramUserName(userName);
-        TelegramCommand prevCommand = START;
-        if (user.isPresent()) {
-            prevCommand = user.get().getPreviousCommand() != null ? user.get().getPreviousCommand() : START;
-        }
+        var prevCommand = telegramUserRepository.findPreviousCommand(userName).orElse(START);
+        return routeCommand(messageText, prevCommand);
+    }
+
+    private TelegramCommand routeCommand(String messageText, TelegramCommand prevCommand) {
         if (messageText.contains(START.getCommand())) {
             return START;
         } else if (messageText.contains(LOGIN.getCommand())) {
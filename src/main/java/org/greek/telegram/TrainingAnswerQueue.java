@@ -0,0 +1,172 @@
+package org.greek.telegram;
+
+import lombok.extern.slf4j.Slf4j;
+import org.greek.kalimeros.api.types.ErrorResponse;
+import org.greek.kalimeros.api.types.SubmitAnswerResult;
+import org.greek.kalimeros.api.types.SuccessResponse;
+import org.greek.kalimeros.api.types.TrainingSession;
+import org.greek.telegram.tenant.BotTenant;
+import org.greek.telegram.tenant.QuotaExceededException;
+import org.greek.telegram.tenant.TenantContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Ordered per-user queue of training answers, submitted to the backend without blocking the update handler thread.
+ * <p>
+ * The backend owns the training session: its results are only forwarded to the chat. A queue is opened by
+ * {@code startTraining} and closed when the backend ends the session, on {@code stopTraining} or after
+ * {@link #IDLE_TIMEOUT} without answers. Replies carry backend text and exception messages as is,
+ * so they must be sent as plain text, not MarkdownV2.
+ */
+@Slf4j
+public class TrainingAnswerQueue {
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+    // answers queued or in flight per user
+    private static final int MAX_PENDING_ANSWERS = 16;
+    private static final int QUOTA_RETRIES = 3;
+
+    private final BotTenant tenant;
+    private final GraphQLClient graphQLClient;
+    private final Map<String, UserQueue> queues = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    public TrainingAnswerQueue(BotTenant tenant, GraphQLClient graphQLClient) {
+        this.tenant = tenant;
+        this.graphQLClient = graphQLClient;
+    }
+
+    public void open(String userName, Consumer<String> reply) {
+        evictIdle();
+        var queue = new UserQueue(reply);
+        queue.subscription = queue.answers.asFlux()
+                .concatMap(answer -> submit(userName, answer)
+                        .publishOn(Schedulers.boundedElastic())
+                        .doFinally(signal -> queue.pending.decrementAndGet())
+                        .doOnNext(result -> forward(userName, queue, result))
+                        .onErrorResume(e -> {
+                            // the backend session may still be alive, keep the queue so the user can answer again
+                            log.error("Error during submit answer for {}", userName, e);
+                            reply.accept("Error during checking answer: " + e.getMessage() + ". Please send it again");
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        var previous = queues.put(userName, queue);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Queues the answer behind any answers of this user that are still in flight.
+     *
+     * @return {@code false} if there is no open queue for the user and the answer has to be submitted inline
+     */
+    public boolean submit(String userName, String answer) {
+        evictIdle();
+        var queue = queues.get(userName);
+        if (queue == null) {
+            return false;
+        }
+        queue.lastAccess = System.nanoTime();
+        if (queue.pending.incrementAndGet() > MAX_PENDING_ANSWERS) {
+            queue.pending.decrementAndGet();
+            queue.reply.accept("Please wait, your previous answers are still being checked");
+            return true;
+        }
+        if (queue.answers.tryEmitNext(answer).isFailure()) {
+            queue.pending.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Closes the user's queue and drops answers not yet sent, e.g. after {@code stopTraining}.
+     */
+    public void close(String userName) {
+        var queue = queues.remove(userName);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    private Mono<SubmitAnswerResult> submit(String userName, String answer) {
+        return Mono.defer(() -> {
+            TenantContext.set(tenant);
+            try {
+                return graphQLClient.submitAnswer(answer, userName);
+            } catch (Exception e) {
+                return Mono.error(e);
+            } finally {
+                TenantContext.clear();
+            }
+        })
+                .subscribeOn(Schedulers.boundedElastic())
+                .retryWhen(Retry.backoff(QUOTA_RETRIES, Duration.ofMillis(500))
+                        .filter(QuotaExceededException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private void forward(String userName, UserQueue queue, SubmitAnswerResult result) {
+        if (result instanceof TrainingSession session) {
+            queue.reply.accept("Next word " + session.getWord() + "\n" +
+                    "Current amount of right answers " + session.getTotal());
+        } else if (result instanceof SuccessResponse success) {
+            end(userName, queue);
+            queue.reply.accept(success.getMessage());
+        } else if (result instanceof ErrorResponse error) {
+            end(userName, queue);
+            queue.reply.accept(error.getError());
+        } else {
+            queue.reply.accept("No answer");
+        }
+    }
+
+    private void end(String userName, UserQueue queue) {
+        queues.remove(userName, queue);
+        queue.answers.tryEmitComplete();
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_INTERVAL.toNanos()) {
+            return;
+        }
+        lastSweep = now;
+        queues.forEach((userName, queue) -> {
+            if (now - queue.lastAccess > IDLE_TIMEOUT.toNanos() && queues.remove(userName, queue)) {
+                log.info("Closing idle training answer queue of {}", userName);
+                queue.close();
+            }
+        });
+    }
+
+    private static class UserQueue {
+        private final Sinks.Many<String> answers = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<String>get(MAX_PENDING_ANSWERS).get());
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Consumer<String> reply;
+        private volatile long lastAccess = System.nanoTime();
+        private Disposable subscription;
+
+        UserQueue(Consumer<String> reply) {
+            this.reply = reply;
+        }
+
+        void close() {
+            subscription.dispose();
+        }
+    }
+}
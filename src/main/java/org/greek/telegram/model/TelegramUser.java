@@ -6,11 +6,13 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-@Document(collection = "telegram_user")
+@Document(collection = "#{T(org.greek.telegram.tenant.TenantContext).collection()}")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class TelegramUser {
+    public static final String DEFAULT_COLLECTION = "telegram_user";
+
     @Id
     public String id;
     public String telegramUserName;
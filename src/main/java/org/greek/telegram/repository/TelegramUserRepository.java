@@ -3,8 +3,5 @@ package org.greek.telegram.repository;
 import org.greek.telegram.model.TelegramUser;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-import java.util.Optional;
-
-public interface TelegramUserRepository extends MongoRepository<TelegramUser, String> {
-    Optional<TelegramUser> findByTelegramUserName(String telegramUserName);
+public interface TelegramUserRepository extends MongoRepository<TelegramUser, String>, TelegramUserRepositoryCustom {
 }
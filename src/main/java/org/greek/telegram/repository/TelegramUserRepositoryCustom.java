@@ -0,0 +1,40 @@
+package org.greek.telegram.repository;
+
+import org.greek.telegram.model.TelegramCommand;
+import org.greek.telegram.model.TelegramUser;
+
+import java.util.Optional;
+
+/**
+ * Field-level operations on the telegram users of the current bot that avoid loading or replacing the whole document.
+ * The collection is the bot's own one, resolved through {@link org.greek.telegram.tenant.TenantContext}.
+ */
+public interface TelegramUserRepositoryCustom {
+
+    /**
+     * Reads only {@code previousCommand} of the user.
+     */
+    Optional<TelegramCommand> findPreviousCommand(String telegramUserName);
+
+    /**
+     * Reads only the login credentials of the user: {@code telegramUserName}, {@code password} and {@code generatedEmail}.
+     */
+    Optional<TelegramUser> findCredentials(String telegramUserName);
+
+    /**
+     * Sets {@code previousCommand} of an existing user without reading the document first.
+     */
+    void updatePreviousCommand(String telegramUserName, TelegramCommand command);
+
+    /**
+     * Returns the user, inserting {@code newUser} with an upsert if there is no user with this name yet.
+     * Two concurrent calls insert only one user if the unique index from {@link #ensureIndexes} exists.
+     */
+    TelegramUser findOrCreate(TelegramUser newUser);
+
+    /**
+     * Creates the unique index on {@code telegramUserName} that keeps {@link #findOrCreate} from inserting twice.
+     * Fails, logging an error, while the collection still holds duplicate users.
+     */
+    void ensureIndexes(String collection);
+}
@@ -0,0 +1,78 @@
+package org.greek.telegram.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.greek.telegram.model.TelegramCommand;
+import org.greek.telegram.model.TelegramUser;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+@Slf4j
+public class TelegramUserRepositoryCustomImpl implements TelegramUserRepositoryCustom {
+    private static final String TELEGRAM_USER_NAME = "telegramUserName";
+    private static final String PREVIOUS_COMMAND = "previousCommand";
+    private static final String PASSWORD = "password";
+    private static final String GENERATED_EMAIL = "generatedEmail";
+
+    private final MongoTemplate mongoTemplate;
+
+    public TelegramUserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<TelegramCommand> findPreviousCommand(String telegramUserName) {
+        var query = byUserName(telegramUserName);
+        query.fields().include(PREVIOUS_COMMAND).exclude("_id");
+        var user = mongoTemplate.findOne(query, TelegramUser.class);
+        return Optional.ofNullable(user).map(TelegramUser::getPreviousCommand);
+    }
+
+    @Override
+    public Optional<TelegramUser> findCredentials(String telegramUserName) {
+        var query = byUserName(telegramUserName);
+        query.fields().include(TELEGRAM_USER_NAME, PASSWORD, GENERATED_EMAIL).exclude("_id");
+        return Optional.ofNullable(mongoTemplate.findOne(query, TelegramUser.class));
+    }
+
+    @Override
+    public void updatePreviousCommand(String telegramUserName, TelegramCommand command) {
+        mongoTemplate.updateFirst(byUserName(telegramUserName), Update.update(PREVIOUS_COMMAND, command), TelegramUser.class);
+    }
+
+    @Override
+    public TelegramUser findOrCreate(TelegramUser newUser) {
+        var update = new Update()
+                .setOnInsert(PASSWORD, newUser.getPassword())
+                .setOnInsert(GENERATED_EMAIL, newUser.getGeneratedEmail())
+                .setOnInsert(PREVIOUS_COMMAND, newUser.getPreviousCommand());
+        var options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(byUserName(newUser.getTelegramUserName()), update, options, TelegramUser.class);
+        } catch (DuplicateKeyException e) {
+            // with the unique index in place a concurrent upsert inserted the user first, so this time the document is found
+            return mongoTemplate.findAndModify(byUserName(newUser.getTelegramUserName()), update, options, TelegramUser.class);
+        }
+    }
+
+    @Override
+    public void ensureIndexes(String collection) {
+        try {
+            mongoTemplate.indexOps(collection).ensureIndex(new Index(TELEGRAM_USER_NAME, Sort.Direction.ASC).unique());
+        } catch (Exception e) {
+            log.error("Can't create unique index on {}.{}, concurrent first messages may insert duplicate users. "
+                    + "Remove duplicates as described in README and restart", collection, TELEGRAM_USER_NAME, e);
+        }
+    }
+
+    private Query byUserName(String telegramUserName) {
+        return Query.query(Criteria.where(TELEGRAM_USER_NAME).is(telegramUserName));
+    }
+}
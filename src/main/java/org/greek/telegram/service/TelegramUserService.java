@@ -19,24 +19,21 @@ public class TelegramUserService {
     }
 
     public TelegramUser findUser(String telegramUserName) {
-        var optUser = telegramUserRepository.findByTelegramUserName(telegramUserName);
-
-        if (optUser.isPresent()) {
-            var savedUser = optUser.get();
-            savedUser.setPassword(decryptPassword(savedUser.getPassword()));
-            return savedUser;
-        } else {
-            var newUser = new TelegramUser();
-            newUser.setTelegramUserName(telegramUserName);
-            newUser.setPassword(encryptPassword(generateRandomPassword(MAX_LENGTH_OF_PASS)));
-            newUser.setGeneratedEmail(telegramUserName.replace("@", "") + "@kbot.com");
-            newUser.setPreviousCommand(START);
-
-            var user =  telegramUserRepository.save(newUser);
-            user.setPassword(decryptPassword(user.getPassword()));
-            return user;
-        }
+        var user = telegramUserRepository.findCredentials(telegramUserName)
+                .orElseGet(() -> telegramUserRepository.findOrCreate(newUser(telegramUserName)));
+        user.setPassword(decryptPassword(user.getPassword()));
+        return user;
+    }
+
+    private TelegramUser newUser(String telegramUserName) {
+        var newUser = new TelegramUser();
+        newUser.setTelegramUserName(telegramUserName);
+        newUser.setPassword(encryptPassword(generateRandomPassword(MAX_LENGTH_OF_PASS)));
+        newUser.setGeneratedEmail(telegramUserName.replace("@", "") + "@kbot.com");
+        newUser.setPreviousCommand(START);
+        return newUser;
     }
+
     private String generateRandomPassword(int length) {
         var chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*()_+";
         var random = new SecureRandom();
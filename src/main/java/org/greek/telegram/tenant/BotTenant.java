@@ -0,0 +1,51 @@
+package org.greek.telegram.tenant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.greek.config.BotProperties;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Per-bot state: registration, backend request and token cache quotas, and metrics tagged with the bot name.
+ */
+@Getter
+public class BotTenant {
+    private final String name;
+    private final String username;
+    private final String token;
+    private final String serverUrl;
+    private final String collection;
+    private final boolean asyncTrainingAnswers;
+    private final Semaphore quota;
+    private final Duration quotaTimeout;
+    private final long tokenCacheEntries;
+    private final Counter updates;
+    private final Counter rejectedRequests;
+    private final Timer updateTimer;
+
+    public BotTenant(BotProperties.Bot registration, MeterRegistry meterRegistry) {
+        this.name = registration.getName();
+        this.username = registration.getUsername();
+        this.token = registration.getToken();
+        this.serverUrl = registration.getServerUrl();
+        this.collection = registration.getCollection();
+        this.asyncTrainingAnswers = registration.isAsyncTrainingAnswers();
+        this.quota = new Semaphore(registration.getMaxConcurrentRequests());
+        this.quotaTimeout = registration.getQuotaTimeout();
+        this.tokenCacheEntries = registration.getTokenCacheEntries();
+        this.updates = Counter.builder("kalimeros.bot.updates")
+                .tag("bot", name)
+                .register(meterRegistry);
+        this.rejectedRequests = Counter.builder("kalimeros.bot.backend.rejected")
+                .description("Backend requests that timed out waiting for the per-bot quota")
+                .tag("bot", name)
+                .register(meterRegistry);
+        this.updateTimer = Timer.builder("kalimeros.bot.update.duration")
+                .tag("bot", name)
+                .register(meterRegistry);
+    }
+}
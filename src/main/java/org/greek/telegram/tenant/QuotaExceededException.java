@@ -0,0 +1,13 @@
+package org.greek.telegram.tenant;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a backend request of a bot could not get a slot within the bot's quota timeout.
+ */
+public class QuotaExceededException extends IOException {
+
+    public QuotaExceededException(String botName) {
+        super("Too many backend requests for bot " + botName);
+    }
+}
@@ -0,0 +1,39 @@
+package org.greek.telegram.tenant;
+
+import org.greek.telegram.model.TelegramUser;
+
+/**
+ * Bot tenant bound to the thread that is handling an update.
+ * <p>
+ * Used by the {@link TelegramUser} collection expression so the shared repository
+ * reads and writes the collection of the bot that received the update.
+ */
+public final class TenantContext {
+    private static final ThreadLocal<BotTenant> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static void set(BotTenant tenant) {
+        CURRENT.set(tenant);
+    }
+
+    public static BotTenant get() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @throws IllegalStateException if no tenant is bound, rather than silently using another bot's collection
+     */
+    public static String collection() {
+        var tenant = CURRENT.get();
+        if (tenant == null) {
+            throw new IllegalStateException("No bot tenant bound to thread " + Thread.currentThread().getName());
+        }
+        return tenant.getCollection();
+    }
+}